@@ -0,0 +1,38 @@
+package com.outln.powercsv;
+
+/**
+ * Bloom filter of long hashes sized for a 1% false positive rate
+ */
+final class BloomFilter {
+    private static final int HASHES = 7;
+
+    private final long[] words;
+    private final long bits;
+
+    BloomFilter(long expectedInsertions) {
+        long size = (long) Math.ceil(-expectedInsertions * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (size + 63) / 64))];
+        this.bits = (long) words.length * 64;
+    }
+
+    void put(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= HASHES; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bits;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
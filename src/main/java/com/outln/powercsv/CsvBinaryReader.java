@@ -0,0 +1,322 @@
+package com.outln.powercsv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.outln.powercsv.CsvBinaryWriter.DOUBLE;
+import static com.outln.powercsv.CsvBinaryWriter.EMPTY;
+import static com.outln.powercsv.CsvBinaryWriter.LONG;
+import static com.outln.powercsv.CsvBinaryWriter.SEGMENT_SIZE;
+
+/**
+ * Reads lines from a memory mapped file written by {@link CsvBinaryWriter}. Lines are addressed by their index,
+ * so the reader can be shared by several threads and its stream splits for parallel processing.
+ */
+public class CsvBinaryReader implements Iterable<CsvLine>, Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final CsvHeader header;
+    private final CsvColumnType[] types;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long rowCount;
+    private final long offsetsPosition;
+
+    public CsvBinaryReader(String filename) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            ByteBuffer first = segments.length == 0 ? ByteBuffer.allocate(0) : segments[0].duplicate();
+            if (first.remaining() < 40 || first.getLong() != CsvBinaryWriter.MAGIC
+                    || first.getInt() != CsvBinaryWriter.VERSION) {
+                throw new IOException("Not a csv binary file: " + filename);
+            }
+            this.sourceSize = first.getLong();
+            this.sourceModified = first.getLong();
+            long footerPosition = first.getLong();
+            if (footerPosition == 0) {
+                throw new IOException("Incomplete csv binary file: " + filename);
+            }
+            int columns = first.getInt();
+            if (columns >= 0) {
+                String[] names = new String[columns];
+                for (int i = 0; i < columns; i++) {
+                    byte[] bytes = new byte[first.getInt()];
+                    first.get(bytes);
+                    names[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                this.header = new CsvHeader(names);
+            } else {
+                this.header = null;
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate((int) (size - footerPosition));
+            while (footer.hasRemaining()) {
+                if (channel.read(footer, footerPosition + footer.position()) < 0) {
+                    throw new IOException("Truncated csv binary file: " + filename);
+                }
+            }
+            footer.flip();
+            this.rowCount = footer.getLong();
+            this.offsetsPosition = footer.getLong();
+            this.types = new CsvColumnType[footer.getInt()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = CsvColumnType.values()[footer.get()];
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the binary cache of a csv file, building it first when it is missing or the csv file has changed
+     *
+     * @param csvFile   the source csv file
+     * @param cacheFile the binary cache file
+     * @param configure configures the csv reader used to build the cache, e.g. {@code CsvReader::readHeaders}
+     * @return the reader of the cache
+     */
+    public static CsvBinaryReader open(String csvFile, String cacheFile, Consumer<CsvReader> configure) {
+        try {
+            if (!isValid(csvFile, cacheFile)) {
+                CsvBinaryWriter.write(csvFile, cacheFile, configure);
+            }
+            return new CsvBinaryReader(cacheFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks whether the binary cache was built from the current version of the csv file
+     *
+     * @param csvFile   the source csv file
+     * @param cacheFile the binary cache file
+     * @return {@code true} if the size and modification time of the csv file match the cache
+     */
+    public static boolean isValid(String csvFile, String cacheFile) {
+        Path cache = Paths.get(cacheFile);
+        if (!Files.isRegularFile(cache)) {
+            return false;
+        }
+        try (CsvBinaryReader reader = new CsvBinaryReader(cacheFile)) {
+            Path source = Paths.get(csvFile);
+            return reader.sourceSize == Files.size(source)
+                    && reader.sourceModified == Files.getLastModifiedTime(source).toMillis();
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    public String[] getHeader() {
+        return header == null ? null : header.getHeaders();
+    }
+
+    /**
+     * Gets the widest type of the values of a column
+     *
+     * @param index the column index
+     * @return the {@link CsvColumnType}
+     */
+    public CsvColumnType getColumnType(int index) {
+        return index < types.length ? types[index] : CsvColumnType.EMPTY;
+    }
+
+    public long size() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the line at given index
+     *
+     * @param row the line index
+     * @return the {@link CsvLine}
+     */
+    public CsvLine get(long row) {
+        long offset = offset(row);
+        ByteBuffer segment = segment(offset);
+        int position = (int) (offset % SEGMENT_SIZE);
+        int count = segment.getInt(position);
+        position += 4;
+        CsvLine line = new CsvLine(',', '"', '\n', null, header);
+        for (int i = 0; i < count; i++) {
+            line.add(string(segment, position));
+            position = skip(segment, position);
+        }
+        return line;
+    }
+
+    /**
+     * Gets the {@link String} for given line and column index without materializing the line
+     *
+     * @param row    the line index
+     * @param column the column index
+     * @return the {@link String} value
+     */
+    public String getString(long row, int column) {
+        long offset = offset(row);
+        ByteBuffer segment = segment(offset);
+        int position = find(segment, (int) (offset % SEGMENT_SIZE), column);
+        return position == -1 ? null : string(segment, position);
+    }
+
+    public String getString(long row, String column) {
+        return getString(row, getColumnIndex(column));
+    }
+
+    /**
+     * Gets the {@link Long} for given line and column index without materializing the line
+     *
+     * @param row    the line index
+     * @param column the column index
+     * @return the {@link Long} value
+     */
+    public Long getLong(long row, int column) {
+        long offset = offset(row);
+        ByteBuffer segment = segment(offset);
+        int position = find(segment, (int) (offset % SEGMENT_SIZE), column);
+        if (position == -1) {
+            return null;
+        }
+        switch (segment.get(position)) {
+            case EMPTY:
+                return null;
+            case LONG:
+                return segment.getLong(position + 1);
+            default:
+                String value = string(segment, position).trim();
+                return value.isEmpty() ? null : Long.parseLong(value);
+        }
+    }
+
+    public Long getLong(long row, String column) {
+        return getLong(row, getColumnIndex(column));
+    }
+
+    /**
+     * Gets the {@link Double} for given line and column index without materializing the line
+     *
+     * @param row    the line index
+     * @param column the column index
+     * @return the {@link Double} value
+     */
+    public Double getDouble(long row, int column) {
+        long offset = offset(row);
+        ByteBuffer segment = segment(offset);
+        int position = find(segment, (int) (offset % SEGMENT_SIZE), column);
+        if (position == -1) {
+            return null;
+        }
+        switch (segment.get(position)) {
+            case EMPTY:
+                return null;
+            case LONG:
+                return (double) segment.getLong(position + 1);
+            case DOUBLE:
+                return segment.getDouble(position + 1);
+            default:
+                String value = string(segment, position).trim();
+                return value.isEmpty() ? null : Double.parseDouble(value);
+        }
+    }
+
+    public Double getDouble(long row, String column) {
+        return getDouble(row, getColumnIndex(column));
+    }
+
+    private int getColumnIndex(String column) {
+        if (header == null) {
+            throw new NoHeaderDefinitionFoundException();
+        }
+        int index = header.getIndex(column);
+        if (index == -1) {
+            throw new ColumnNotExistException(column);
+        }
+        return index;
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)];
+    }
+
+    private long offset(long row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Line " + row + " out of " + rowCount);
+        }
+        long position = offsetsPosition + row * 8;
+        return segment(position).getLong((int) (position % SEGMENT_SIZE));
+    }
+
+    private static int find(ByteBuffer segment, int position, int column) {
+        if (column >= segment.getInt(position)) {
+            return -1;
+        }
+        position += 4;
+        for (int i = 0; i < column; i++) {
+            position = skip(segment, position);
+        }
+        return position;
+    }
+
+    private static int skip(ByteBuffer segment, int position) {
+        switch (segment.get(position)) {
+            case EMPTY:
+                return position + 1;
+            case LONG:
+            case DOUBLE:
+                return position + 9;
+            default:
+                return position + 5 + segment.getInt(position + 1);
+        }
+    }
+
+    private static String string(ByteBuffer segment, int position) {
+        switch (segment.get(position)) {
+            case EMPTY:
+                return "";
+            case LONG:
+                return Long.toString(segment.getLong(position + 1));
+            case DOUBLE:
+                return Double.toString(segment.getDouble(position + 1));
+            default:
+                byte[] bytes = new byte[segment.getInt(position + 1)];
+                ByteBuffer value = segment.duplicate();
+                value.position(position + 5);
+                value.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public Iterator<CsvLine> iterator() {
+        return stream().iterator();
+    }
+
+    public Stream<CsvLine> stream() {
+        return LongStream.range(0, rowCount).mapToObj(this::get);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
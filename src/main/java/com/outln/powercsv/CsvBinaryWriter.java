@@ -0,0 +1,251 @@
+package com.outln.powercsv;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Writes lines to the binary format read by {@link CsvBinaryReader}. Numeric values are stored in binary when
+ * their text form can be restored exactly, every other value is stored as UTF-8 text.
+ * <p>
+ * Layout: file header (magic, version, source size and modification time, footer position, column names), the
+ * lines, the line offset table and a footer with the line count, the offset table position and the column types.
+ * Lines never cross a {@link #SEGMENT_SIZE} boundary so each of them can be read from a single mapped segment.
+ */
+public class CsvBinaryWriter implements Closeable {
+    static final long MAGIC = 0x5043535642494E31L;
+    static final int VERSION = 1;
+    static final long SEGMENT_SIZE = 1L << 30;
+    static final int FOOTER_POSITION = 28;
+
+    static final byte EMPTY = 0;
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte STRING = 3;
+
+    private final FileChannel channel;
+    private final Path offsetsFile;
+    private final DataOutputStream offsets;
+    private final ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer row = ByteBuffer.allocate(4 * 1024);
+    private CsvColumnType[] types;
+    private long position = 0;
+    private long rowCount = 0;
+
+    /**
+     * Creates a writer for a cache of the given source attributes
+     *
+     * @param filename       the binary file name
+     * @param header         the header, may be {@code null}
+     * @param sourceSize     the size of the source csv file
+     * @param sourceModified the modification time of the source csv file in milliseconds
+     */
+    public CsvBinaryWriter(String filename, String[] header, long sourceSize, long sourceModified) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.offsetsFile = Files.createTempFile(Paths.get(filename).toAbsolutePath().getParent(), "offsets", ".tmp");
+        this.offsets = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(offsetsFile)));
+        this.types = new CsvColumnType[header == null ? 0 : header.length];
+        Arrays.fill(types, CsvColumnType.EMPTY);
+
+        out.putLong(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(sourceSize);
+        out.putLong(sourceModified);
+        out.putLong(0);
+        out.putInt(header == null ? -1 : header.length);
+        position = out.position();
+        if (header != null) {
+            for (String name : header) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                row.clear();
+                ensureRowCapacity(4 + bytes.length);
+                row.putInt(bytes.length).put(bytes).flip();
+                position += row.remaining();
+                put(row);
+            }
+        }
+    }
+
+    public void write(CsvLine line) {
+        row.clear();
+        ensureRowCapacity(4);
+        row.putInt(line.size());
+        int column = 0;
+        for (String value : line) {
+            encode(column++, value);
+        }
+        row.flip();
+        if (row.remaining() > SEGMENT_SIZE - 8) {
+            throw new IllegalArgumentException("Line too large");
+        }
+        try {
+            if (position / SEGMENT_SIZE != (position + row.remaining() - 1) / SEGMENT_SIZE) {
+                pad(SEGMENT_SIZE);
+            }
+            offsets.writeLong(position);
+            position += row.remaining();
+            put(row);
+            rowCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void encode(int column, String value) {
+        CsvColumnType type = CsvColumnType.of(value);
+        if (column >= types.length) {
+            int size = types.length;
+            types = Arrays.copyOf(types, column + 1);
+            Arrays.fill(types, size, types.length, CsvColumnType.EMPTY);
+        }
+        types[column] = types[column].widen(type);
+        if (type == CsvColumnType.EMPTY && (value == null || value.isEmpty())) {
+            ensureRowCapacity(1);
+            row.put(EMPTY);
+            return;
+        }
+        if (type == CsvColumnType.LONG) {
+            long l = Long.parseLong(value.trim());
+            if (Long.toString(l).equals(value)) {
+                ensureRowCapacity(9);
+                row.put(LONG).putLong(l);
+                return;
+            }
+        } else if (type == CsvColumnType.DOUBLE) {
+            double d = Double.parseDouble(value.trim());
+            if (Double.toString(d).equals(value)) {
+                ensureRowCapacity(9);
+                row.put(DOUBLE).putDouble(d);
+                return;
+            }
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRowCapacity(5 + bytes.length);
+        row.put(STRING).putInt(bytes.length).put(bytes);
+    }
+
+    private void ensureRowCapacity(int n) {
+        if (row.remaining() < n) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(row.capacity() * 2, row.position() + n));
+            row.flip();
+            row = grown.put(row);
+        }
+    }
+
+    private void put(ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() > out.remaining()) {
+            flush();
+        }
+        if (bytes.remaining() > out.capacity()) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } else {
+            out.put(bytes);
+        }
+    }
+
+    private void pad(long alignment) throws IOException {
+        long padding = (alignment - position % alignment) % alignment;
+        while (padding > 0) {
+            if (!out.hasRemaining()) {
+                flush();
+            }
+            int n = (int) Math.min(padding, out.remaining());
+            for (int i = 0; i < n; i++) {
+                out.put((byte) 0);
+            }
+            padding -= n;
+            position += n;
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    @Override
+    public void close() {
+        try {
+            pad(8);
+            flush();
+            long offsetsPosition = position;
+            offsets.close();
+            try (FileChannel source = FileChannel.open(offsetsFile, StandardOpenOption.READ)) {
+                long size = source.size();
+                long transferred = 0;
+                while (transferred < size) {
+                    transferred += source.transferTo(transferred, size - transferred, channel);
+                }
+                position += size;
+            }
+            long footerPosition = position;
+            ByteBuffer footer = ByteBuffer.allocate(20 + types.length);
+            footer.putLong(rowCount).putLong(offsetsPosition).putInt(types.length);
+            for (CsvColumnType type : types) {
+                footer.put((byte) type.ordinal());
+            }
+            footer.flip();
+            while (footer.hasRemaining()) {
+                channel.write(footer);
+            }
+            ByteBuffer pointer = ByteBuffer.allocate(8).putLong(footerPosition);
+            pointer.flip();
+            channel.write(pointer, FOOTER_POSITION);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                channel.close();
+                Files.deleteIfExists(offsetsFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Converts a csv file to the binary format in a single pass
+     *
+     * @param csvFile   the source csv file
+     * @param cacheFile the binary file
+     * @param configure configures the reader before the first line is read, e.g. {@code CsvReader::readHeaders}
+     */
+    public static void write(String csvFile, String cacheFile, Consumer<CsvReader> configure) {
+        Path source = Paths.get(csvFile);
+        Path target = Paths.get(cacheFile).toAbsolutePath();
+        try {
+            long size = Files.size(source);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (CsvReader reader = new CsvReader(csvFile)) {
+                configure.accept(reader);
+                try (CsvBinaryWriter writer = new CsvBinaryWriter(temp.toString(), reader.getHeader(), size, modified)) {
+                    reader.forEach(writer::write);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
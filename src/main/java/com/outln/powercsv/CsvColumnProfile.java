@@ -0,0 +1,150 @@
+package com.outln.powercsv;
+
+/**
+ * Statistics of one column collected by {@link CsvProfile}
+ */
+public class CsvColumnProfile {
+    private final String name;
+    private long count = 0;
+    private long emptyCount = 0;
+    private long missingCount = 0;
+    private CsvColumnType type = CsvColumnType.EMPTY;
+    private String min = null;
+    private String max = null;
+    private double numericMin = Double.POSITIVE_INFINITY;
+    private double numericMax = Double.NEGATIVE_INFINITY;
+    private String numericMinText = null;
+    private String numericMaxText = null;
+    private final HyperLogLog distinct = new HyperLogLog();
+
+    CsvColumnProfile(String name) {
+        this.name = name;
+    }
+
+    void accept(String value) {
+        count++;
+        CsvColumnType valueType = CsvColumnType.of(value);
+        type = type.widen(valueType);
+        if (valueType == CsvColumnType.EMPTY) {
+            emptyCount++;
+            return;
+        }
+        distinct.add(CsvHash.hash(value));
+        if (min == null || value.compareTo(min) < 0) {
+            min = value;
+        }
+        if (max == null || value.compareTo(max) > 0) {
+            max = value;
+        }
+        if (valueType != CsvColumnType.STRING) {
+            double number = Double.parseDouble(value.trim());
+            if (number < numericMin) {
+                numericMin = number;
+                numericMinText = value;
+            }
+            if (number > numericMax) {
+                numericMax = number;
+                numericMaxText = value;
+            }
+        }
+    }
+
+    void acceptMissing(long lines) {
+        missingCount += lines;
+    }
+
+    void merge(CsvColumnProfile other) {
+        count += other.count;
+        emptyCount += other.emptyCount;
+        missingCount += other.missingCount;
+        type = type.widen(other.type);
+        distinct.merge(other.distinct);
+        if (other.min != null && (min == null || other.min.compareTo(min) < 0)) {
+            min = other.min;
+        }
+        if (other.max != null && (max == null || other.max.compareTo(max) > 0)) {
+            max = other.max;
+        }
+        if (other.numericMin < numericMin) {
+            numericMin = other.numericMin;
+            numericMinText = other.numericMinText;
+        }
+        if (other.numericMax > numericMax) {
+            numericMax = other.numericMax;
+            numericMaxText = other.numericMaxText;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of lines having a value for this column, including empty values
+     *
+     * @return the value count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of blank values
+     *
+     * @return the empty value count
+     */
+    public long getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Gets the number of lines too short to have a value for this column
+     *
+     * @return the missing value count
+     */
+    public long getMissingCount() {
+        return missingCount;
+    }
+
+    /**
+     * Gets the widest type of the values
+     *
+     * @return the {@link CsvColumnType}
+     */
+    public CsvColumnType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the smallest value, compared as numbers for numeric columns and as text otherwise
+     *
+     * @return the smallest value, or {@code null} if all values are empty
+     */
+    public String getMin() {
+        return type == CsvColumnType.LONG || type == CsvColumnType.DOUBLE ? numericMinText : min;
+    }
+
+    /**
+     * Gets the largest value, compared as numbers for numeric columns and as text otherwise
+     *
+     * @return the largest value, or {@code null} if all values are empty
+     */
+    public String getMax() {
+        return type == CsvColumnType.LONG || type == CsvColumnType.DOUBLE ? numericMaxText : max;
+    }
+
+    /**
+     * Gets the estimated number of distinct non empty values
+     *
+     * @return the estimate
+     */
+    public long getDistinctCount() {
+        return distinct.estimate();
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + type + " count=" + count + " empty=" + emptyCount + " missing=" + missingCount
+                + " distinct~" + getDistinctCount() + " min=" + getMin() + " max=" + getMax();
+    }
+}
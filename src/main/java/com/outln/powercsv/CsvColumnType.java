@@ -0,0 +1,66 @@
+package com.outln.powercsv;
+
+/**
+ * Value types inferred from csv text, ordered from the narrowest to the widest.
+ */
+public enum CsvColumnType {
+    EMPTY,
+    LONG,
+    DOUBLE,
+    STRING;
+
+    /**
+     * Gets the narrowest type holding the values of both types
+     *
+     * @param other the other type
+     * @return the widened type
+     */
+    public CsvColumnType widen(CsvColumnType other) {
+        return other.ordinal() > ordinal() ? other : this;
+    }
+
+    /**
+     * Infers the type of a value the way {@link CsvLine} parses it
+     *
+     * @param value the value
+     * @return the inferred type
+     */
+    public static CsvColumnType of(String value) {
+        if (value == null) {
+            return EMPTY;
+        }
+        value = value.trim();
+        if (value.isEmpty()) {
+            return EMPTY;
+        }
+        boolean integral = true;
+        boolean numeric = true;
+        for (int i = 0; i < value.length() && numeric; i++) {
+            char c = value.charAt(i);
+            if (c == '-' || c == '+') {
+                integral &= i == 0;
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (c < '0' || c > '9') {
+                numeric = false;
+            }
+        }
+        if (!numeric) {
+            return STRING;
+        }
+        try {
+            if (integral) {
+                Long.parseLong(value);
+                return LONG;
+            }
+        } catch (NumberFormatException e) {
+            // too large for a long, may still be a double
+        }
+        try {
+            Double.parseDouble(value);
+            return DOUBLE;
+        } catch (NumberFormatException e) {
+            return STRING;
+        }
+    }
+}
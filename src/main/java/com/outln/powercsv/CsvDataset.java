@@ -0,0 +1,400 @@
+package com.outln.powercsv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads several csv files sharing the same header as one stream. Parallel streams split the dataset by file and,
+ * when enabled with {@link #setSplitFiles(boolean)}, large files by line aligned byte ranges, idle threads of the
+ * fork join pool steal the remaining splits.
+ */
+public class CsvDataset {
+    private final List<Path> files;
+    private CsvHeader header = null;
+
+    private char separator = ',';
+    private char quote = '"';
+    private char newLine = '\n';
+    private Charset charset = Charset.defaultCharset();
+
+    private boolean readHeaders = true;
+    private boolean parallel = true;
+    private boolean ordered = true;
+    private boolean splitFiles = false;
+    private long splitSize = 64L * 1024 * 1024;
+
+    public CsvDataset(List<String> files) {
+        this.files = files.stream().map(Paths::get).collect(Collectors.toList());
+    }
+
+    public static CsvDataset of(String... files) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, files);
+        return new CsvDataset(list);
+    }
+
+    /**
+     * Creates a dataset of the files of a directory matching a glob, in file name order
+     *
+     * @param directory the directory
+     * @param glob      the glob, e.g. {@code *.csv}
+     * @return the dataset
+     */
+    public static CsvDataset glob(String directory, String glob) {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(Paths.get(directory), glob)) {
+            for (Path path : paths) {
+                if (Files.isRegularFile(path)) {
+                    files.add(path.toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(files);
+        return new CsvDataset(files);
+    }
+
+    public static CsvDataset directory(String directory) {
+        return glob(directory, "*");
+    }
+
+    public static Stream<CsvLine> lines(String directory, String glob) {
+        return glob(directory, glob).stream();
+    }
+
+    public CsvDataset setSeparator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    public CsvDataset setQuote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    public CsvDataset setLineBreak(char lineBreak) {
+        this.newLine = lineBreak;
+        return this;
+    }
+
+    public CsvDataset setCharset(Charset charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    /**
+     * Sets whether the first line of every file is a header, {@code true} by default
+     */
+    public CsvDataset setReadHeaders(boolean readHeaders) {
+        this.readHeaders = readHeaders;
+        return this;
+    }
+
+    public CsvDataset setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Sets whether the stream keeps the file and line order, {@code true} by default
+     */
+    public CsvDataset setOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Allows splitting files larger than twice the split size at line breaks. Only valid when no quoted value
+     * contains a line break, and the line break must be a single byte in the charset.
+     */
+    public CsvDataset setSplitFiles(boolean splitFiles) {
+        this.splitFiles = splitFiles;
+        return this;
+    }
+
+    public CsvDataset setSplitSize(long splitSize) {
+        this.splitSize = splitSize;
+        return this;
+    }
+
+    /**
+     * Gets the header shared by all files of the dataset
+     *
+     * @return the header, or {@code null} if headers are not read
+     * @throws HeaderMismatchException if a file has a different header
+     */
+    public String[] getHeader() {
+        CsvHeader header = checkHeaders();
+        return header == null ? null : header.getHeaders();
+    }
+
+    public Stream<CsvLine> stream() {
+        if (splitFiles && !isSingleByteLineBreak()) {
+            throw new IllegalStateException("Files can only be split on a single byte line break");
+        }
+        checkHeaders();
+        List<Segment> segments = new ArrayList<>();
+        try {
+            for (Path file : files) {
+                long size = Files.size(file);
+                if (size > 0) {
+                    segments.add(new Segment(file, 0, size));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Set<CsvReader> readers = ConcurrentHashMap.newKeySet();
+        return StreamSupport.stream(new DatasetSpliterator(segments, readers), parallel).onClose(() -> {
+            for (CsvReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+    }
+
+    private synchronized CsvHeader checkHeaders() {
+        if (!readHeaders || header != null) {
+            return header;
+        }
+        CsvHeader first = null;
+        try {
+            for (Path file : files) {
+                long size = Files.size(file);
+                if (size == 0) {
+                    continue;
+                }
+                try (CsvReader reader = open(new Segment(file, 0, size))) {
+                    CsvHeader fileHeader = new CsvHeader(reader.readHeaders().getHeader());
+                    if (first == null) {
+                        first = fileHeader;
+                    } else if (!first.equals(fileHeader)) {
+                        throw new HeaderMismatchException(file.toString());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        header = first;
+        return header;
+    }
+
+    private boolean isSingleByteLineBreak() {
+        return newLine <= 0x7f && new String(new byte[]{(byte) newLine}, charset).equals(String.valueOf(newLine));
+    }
+
+    private CsvReader open(Segment segment) throws IOException {
+        FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ);
+        return new CsvReader(new InputStreamReader(new RangeInputStream(channel, segment.start, segment.end), charset))
+                .setSeparator(separator)
+                .setQuote(quote)
+                .setLineBreak(newLine);
+    }
+
+    /**
+     * Finds the first line start after the middle of a segment
+     *
+     * @return the split position, or -1 if the segment should not be split
+     */
+    private long findSplit(Segment segment) throws IOException {
+        if (segment.end - segment.start < 2 * splitSize) {
+            return -1;
+        }
+        long position = segment.start + (segment.end - segment.start) / 2;
+        ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            while (position < segment.end) {
+                buffer.clear();
+                int n = channel.read(buffer, position);
+                if (n <= 0) {
+                    return -1;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (buffer.get(i) == (byte) newLine) {
+                        long split = position + i + 1;
+                        return split < segment.end ? split : -1;
+                    }
+                }
+                position += n;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Segment {
+        final Path file;
+        final long start;
+        final long end;
+
+        Segment(Path file, long start, long end) {
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private class DatasetSpliterator implements Spliterator<CsvLine> {
+        private final List<Segment> segments;
+        private final Set<CsvReader> readers;
+        private CsvReader reader = null;
+        private Iterator<CsvLine> lines = null;
+
+        DatasetSpliterator(List<Segment> segments, Set<CsvReader> readers) {
+            this.segments = segments;
+            this.readers = readers;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CsvLine> action) {
+            while (true) {
+                if (lines != null) {
+                    if (lines.hasNext()) {
+                        action.accept(lines.next());
+                        return true;
+                    }
+                    closeReader();
+                }
+                if (segments.isEmpty()) {
+                    return false;
+                }
+                openReader(segments.remove(0));
+            }
+        }
+
+        @Override
+        public Spliterator<CsvLine> trySplit() {
+            if (lines != null || segments.isEmpty()) {
+                return null;
+            }
+            if (segments.size() > 1) {
+                List<Segment> prefix = segments.subList(0, segments.size() / 2);
+                DatasetSpliterator split = new DatasetSpliterator(new ArrayList<>(prefix), readers);
+                prefix.clear();
+                return split;
+            }
+            if (!splitFiles) {
+                return null;
+            }
+            Segment segment = segments.get(0);
+            try {
+                long position = findSplit(segment);
+                if (position == -1) {
+                    return null;
+                }
+                segments.set(0, new Segment(segment.file, position, segment.end));
+                List<Segment> prefix = new ArrayList<>();
+                prefix.add(new Segment(segment.file, segment.start, position));
+                return new DatasetSpliterator(prefix, readers);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            long size = 0;
+            for (Segment segment : segments) {
+                size += segment.end - segment.start;
+            }
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        }
+
+        private void openReader(Segment segment) {
+            try {
+                reader = open(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            readers.add(reader);
+            if (readHeaders) {
+                if (segment.start == 0) {
+                    reader.readHeaders();
+                } else {
+                    reader.setHeaders(header.getHeaders());
+                }
+            }
+            lines = reader.iterator();
+        }
+
+        private void closeReader() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                readers.remove(reader);
+                reader = null;
+                lines = null;
+            }
+        }
+    }
+
+    /**
+     * Reads a byte range of a file channel, closing the channel when closed
+     */
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
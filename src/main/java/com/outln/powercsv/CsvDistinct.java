@@ -0,0 +1,385 @@
+package com.outln.powercsv;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Removes lines repeating the key columns of an earlier line. Lines are compared by a 64 bit hash of their key
+ * values kept in an off heap set, so two different keys colliding on the hash are treated as duplicates.
+ * <p>
+ * When the set reaches the memory limit its hashes and the remaining lines are partitioned to temporary files by
+ * hash and each partition is deduplicated on its own once the input is consumed, those lines are emitted grouped
+ * by partition instead of in input order. A partition whose hashes still exceed the limit is partitioned again.
+ * With a Bloom filter, lines whose key was certainly not seen before are still emitted immediately after the spill
+ * and only their hash is written to disk.
+ */
+public class CsvDistinct {
+    private final Stream<CsvLine> lines;
+    private final String[] keyColumns;
+
+    private long maxMemory = 256L * 1024 * 1024;
+    private int partitions = 16;
+    private long expectedLines = 0;
+    private String tempDirectory = null;
+
+    /**
+     * Creates a distinct stage
+     *
+     * @param lines      the lines
+     * @param keyColumns the key columns, all values of a line when empty
+     */
+    public CsvDistinct(Stream<CsvLine> lines, String... keyColumns) {
+        this.lines = lines;
+        this.keyColumns = keyColumns;
+    }
+
+    public static Stream<CsvLine> distinct(Stream<CsvLine> lines, String... keyColumns) {
+        return new CsvDistinct(lines, keyColumns).stream();
+    }
+
+    /**
+     * Sets the off heap size the hash set may grow to before spilling to disk, the set never exceeds 1 GiB
+     */
+    public CsvDistinct setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+        return this;
+    }
+
+    public CsvDistinct setPartitions(int partitions) {
+        if (partitions < 2) {
+            throw new IllegalArgumentException("At least two partitions are required");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * Enables the Bloom filter consulted after a spill, sized for the expected number of distinct keys
+     */
+    public CsvDistinct setBloomFilter(long expectedLines) {
+        this.expectedLines = expectedLines;
+        return this;
+    }
+
+    public CsvDistinct setTempDirectory(String tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    public Stream<CsvLine> stream() {
+        DistinctIterator iterator = new DistinctIterator(lines.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(lines::close)
+                .onClose(iterator::close);
+    }
+
+    private int partition(long hash, int depth) {
+        // the set slots use the low bits of the hash, every level draws its partition from a fresh mix
+        return (int) ((CsvHash.mix(hash + depth) >>> 1) % partitions);
+    }
+
+    private class DistinctIterator implements Iterator<CsvLine> {
+        private final Iterator<CsvLine> source;
+        private OffHeapLongSet seen = new OffHeapLongSet(maxMemory);
+        private CsvHeader header = null;
+        private int[] keys = null;
+        private boolean resolved = false;
+        private CsvLine nextLine = null;
+
+        private Path directory = null;
+        private BloomFilter bloom = null;
+        private DataOutputStream[] seenParts = null;
+        private CsvWriter[] lineParts = null;
+        private ArrayDeque<Partition> pending = null;
+        private Partition current = null;
+        private CsvReader partitionReader = null;
+        private Iterator<CsvLine> partitionLines = null;
+
+        DistinctIterator(Iterator<CsvLine> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLine == null) {
+                try {
+                    nextLine = advance();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        public CsvLine next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            CsvLine line = nextLine;
+            nextLine = null;
+            return line;
+        }
+
+        private CsvLine advance() throws IOException {
+            while (source.hasNext()) {
+                CsvLine line = source.next();
+                long hash = hash(line);
+                if (directory == null) {
+                    if (!seen.isFull()) {
+                        if (seen.add(hash)) {
+                            return line;
+                        }
+                        continue;
+                    }
+                    spill();
+                }
+                if (bloom != null) {
+                    boolean maybeSeen = bloom.mightContain(hash);
+                    bloom.put(hash);
+                    if (!maybeSeen) {
+                        seenParts[partition(hash, 0)].writeLong(hash);
+                        return line;
+                    }
+                }
+                // written with the default separator and quote the partition readers expect
+                lineParts[partition(hash, 0)].write(line.toArray());
+            }
+            if (directory == null) {
+                return null;
+            }
+            if (pending == null) {
+                closePartitions();
+                bloom = null;
+                pending = new ArrayDeque<>();
+                pushPartitions(new Partition("", -1));
+            }
+            while (true) {
+                if (partitionLines != null) {
+                    while (partitionLines.hasNext()) {
+                        CsvLine line = partitionLines.next();
+                        if (seen.isFull()) {
+                            split(null, 0, line);
+                            break;
+                        }
+                        if (seen.add(hash(line))) {
+                            return line;
+                        }
+                    }
+                    finishPartition();
+                }
+                if (pending.isEmpty()) {
+                    seen = null;
+                    return null;
+                }
+                openPartition(pending.pop());
+            }
+        }
+
+        private long hash(CsvLine line) {
+            if (!resolved) {
+                header = line.getCsvHeader();
+                if (keyColumns.length > 0) {
+                    keys = new int[keyColumns.length];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = line.getColumn(keyColumns[i]);
+                        if (keys[i] == -1) {
+                            throw new ColumnNotExistException(keyColumns[i]);
+                        }
+                    }
+                }
+                resolved = true;
+            }
+            return CsvHash.hash(line.getValues(), keys);
+        }
+
+        private void spill() throws IOException {
+            directory = tempDirectory == null
+                    ? Files.createTempDirectory("csvdistinct")
+                    : Files.createTempDirectory(Paths.get(tempDirectory), "csvdistinct");
+            if (expectedLines > 0) {
+                bloom = new BloomFilter(expectedLines);
+            }
+            openPartitions(new Partition("", -1));
+            writeSeen(0);
+            seen = null;
+        }
+
+        private void openPartition(Partition partition) throws IOException {
+            current = partition;
+            seen = new OffHeapLongSet(maxMemory);
+            Path seenFile = file(partition, "seen");
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(seenFile)))) {
+                for (long remaining = Files.size(seenFile) / 8; remaining > 0; remaining--) {
+                    if (seen.isFull()) {
+                        split(in, remaining, null);
+                        break;
+                    }
+                    seen.add(in.readLong());
+                }
+            }
+            if (seen == null) {
+                finishPartition();
+                return;
+            }
+            openLines();
+        }
+
+        private void openLines() throws IOException {
+            partitionReader = new CsvReader(new InputStreamReader(
+                    Files.newInputStream(file(current, "lines")), StandardCharsets.UTF_8));
+            if (header != null) {
+                partitionReader.setHeaders(header.getHeaders());
+            }
+            partitionLines = partitionReader.iterator();
+        }
+
+        /**
+         * Partitions the current partition a level deeper once its hashes outgrow the memory limit. The hashes
+         * of the lines already emitted go along with the rest, so the sub partitions still drop their duplicates.
+         */
+        private void split(DataInputStream seenIn, long seenRemaining, CsvLine line) throws IOException {
+            int depth = current.depth + 1;
+            openPartitions(current);
+            writeSeen(depth);
+            seen = null;
+            for (long i = seenRemaining; i > 0; i--) {
+                long hash = seenIn.readLong();
+                seenParts[partition(hash, depth)].writeLong(hash);
+            }
+            if (partitionLines == null) {
+                openLines();
+            }
+            if (line != null) {
+                lineParts[partition(hash(line), depth)].write(line.toArray());
+            }
+            while (partitionLines.hasNext()) {
+                CsvLine next = partitionLines.next();
+                lineParts[partition(hash(next), depth)].write(next.toArray());
+            }
+            closePartitions();
+            pushPartitions(current);
+        }
+
+        private void writeSeen(int depth) {
+            seen.forEach(hash -> {
+                try {
+                    seenParts[partition(hash, depth)].writeLong(hash);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (bloom != null && depth == 0) {
+                    bloom.put(hash);
+                }
+            });
+        }
+
+        private void openPartitions(Partition parent) throws IOException {
+            seenParts = new DataOutputStream[partitions];
+            lineParts = new CsvWriter[partitions];
+            for (int i = 0; i < partitions; i++) {
+                Partition partition = parent.child(i);
+                seenParts[i] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(file(partition, "seen"))));
+                lineParts[i] = new CsvWriter(new OutputStreamWriter(
+                        Files.newOutputStream(file(partition, "lines")), StandardCharsets.UTF_8));
+            }
+        }
+
+        private void pushPartitions(Partition parent) {
+            // pushed in reverse so sub partitions are processed first and in order
+            for (int i = partitions - 1; i >= 0; i--) {
+                pending.push(parent.child(i));
+            }
+        }
+
+        private void finishPartition() throws IOException {
+            if (partitionReader != null) {
+                partitionReader.close();
+                partitionReader = null;
+                partitionLines = null;
+            }
+            Files.deleteIfExists(file(current, "seen"));
+            Files.deleteIfExists(file(current, "lines"));
+            current = null;
+        }
+
+        private Path file(Partition partition, String kind) {
+            return directory.resolve(kind + partition.name);
+        }
+
+        private void closePartitions() throws IOException {
+            if (seenParts != null) {
+                for (DataOutputStream seenPart : seenParts) {
+                    seenPart.close();
+                }
+                for (CsvWriter linePart : lineParts) {
+                    linePart.close();
+                }
+                seenParts = null;
+                lineParts = null;
+            }
+        }
+
+        void close() {
+            if (directory == null) {
+                return;
+            }
+            try {
+                closePartitions();
+                if (partitionReader != null) {
+                    partitionReader.close();
+                }
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+                    paths.forEach(files::add);
+                }
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
+                Files.deleteIfExists(directory);
+                directory = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A spilled partition, named by the partition indices leading to it
+     */
+    private static final class Partition {
+        private final String name;
+        private final int depth;
+
+        Partition(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+
+        Partition child(int index) {
+            return new Partition(name + "-" + index, depth + 1);
+        }
+    }
+}
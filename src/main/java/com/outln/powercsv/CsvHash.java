@@ -0,0 +1,67 @@
+package com.outln.powercsv;
+
+import java.util.List;
+
+/**
+ * 64 bit hashing of csv values: FNV-1a over the chars, finalized with the murmur3 mixer to spread the bits.
+ */
+final class CsvHash {
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private CsvHash() {
+    }
+
+    static long hash(CharSequence value) {
+        long hash = OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Hashes the values at the given indices, missing values hash as empty values
+     *
+     * @param values  the values
+     * @param indices the indices of the hashed values
+     * @return the hash
+     */
+    static long hash(String[] values, int[] indices) {
+        long hash = 0;
+        for (int index : indices) {
+            hash = hash * 31 + hash(index < values.length ? values[index] : "");
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Hashes the values at the given indices, missing values hash as empty values
+     *
+     * @param values  the values
+     * @param indices the indices of the hashed values, {@code null} to hash all values
+     * @return the hash
+     */
+    static long hash(List<String> values, int[] indices) {
+        long hash = 0;
+        if (indices == null) {
+            for (String value : values) {
+                hash = hash * 31 + hash(value);
+            }
+        } else {
+            for (int index : indices) {
+                hash = hash * 31 + hash(index < values.size() ? values.get(index) : "");
+            }
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,5 +1,6 @@
 package com.outln.powercsv;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -32,4 +33,14 @@ public class CsvHeader {
     public int getIndex(String header) {
         return indices.getOrDefault(header, -1);
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CsvHeader && Arrays.equals(headers, ((CsvHeader) o).headers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(headers);
+    }
 }
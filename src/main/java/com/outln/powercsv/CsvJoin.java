@@ -0,0 +1,411 @@
+package com.outln.powercsv;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Hash join of two csv sources. The smaller build side is loaded into a compact hash table on its join columns and
+ * the larger probe side is streamed against it, in parallel by default. When the build side exceeds the memory
+ * limit both sides are hash partitioned to temporary files and joined sequentially one partition at a time. A
+ * partition whose build side is still over the limit is partitioned again.
+ * <p>
+ * Joined lines hold the probe values followed by the non join values of the build side. Build columns named like
+ * a probe column get a {@code _right} suffix. A join can be streamed once.
+ */
+public class CsvJoin {
+    private static final int MAX_DEPTH = 4;
+
+    private final CsvReader build;
+    private final String[] buildColumns;
+    private final CsvReader probe;
+    private final String[] probeColumns;
+
+    private boolean keepUnmatched = false;
+    private boolean parallel = true;
+    private long maxMemory = Runtime.getRuntime().maxMemory() / 4;
+    private int partitions = 16;
+    private String tempDirectory = null;
+
+    private int[] buildKeys;
+    private int[] buildValues;
+    private int[] probeKeys;
+    private int probeWidth;
+    private CsvHeader header;
+
+    /**
+     * Joins two sources on columns with the same names
+     *
+     * @param build   the smaller side, headers read
+     * @param probe   the larger side, headers read
+     * @param columns the join columns
+     */
+    public CsvJoin(CsvReader build, CsvReader probe, String... columns) {
+        this(build, columns, probe, columns);
+    }
+
+    public CsvJoin(CsvReader build, String[] buildColumns, CsvReader probe, String[] probeColumns) {
+        if (buildColumns.length != probeColumns.length || buildColumns.length == 0) {
+            throw new IllegalArgumentException("Join columns of both sides must match");
+        }
+        this.build = build;
+        this.buildColumns = buildColumns;
+        this.probe = probe;
+        this.probeColumns = probeColumns;
+    }
+
+    /**
+     * Sets whether probe lines without a match are kept with empty build values, {@code false} by default
+     */
+    public CsvJoin setKeepUnmatched(boolean keepUnmatched) {
+        this.keepUnmatched = keepUnmatched;
+        return this;
+    }
+
+    /**
+     * Sets whether the probe side is streamed in parallel, {@code true} by default. Only applies to joins fitting
+     * in memory, spilled partitions are joined sequentially to hold a single build partition at a time.
+     */
+    public CsvJoin setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Sets the approximate heap size the build side may take before both sides are partitioned to disk
+     */
+    public CsvJoin setMaxMemory(long maxMemory) {
+        this.maxMemory = maxMemory;
+        return this;
+    }
+
+    public CsvJoin setPartitions(int partitions) {
+        if (partitions < 2) {
+            throw new IllegalArgumentException("At least two partitions are required");
+        }
+        this.partitions = partitions;
+        return this;
+    }
+
+    public CsvJoin setTempDirectory(String tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    public String[] getHeader() {
+        prepare();
+        return header.getHeaders();
+    }
+
+    public Stream<CsvLine> stream() {
+        prepare();
+        Table table = new Table();
+        long memory = 0;
+        Iterator<CsvLine> lines = build.iterator();
+        while (lines.hasNext()) {
+            String[] row = lines.next().toArray();
+            table.add(CsvHash.hash(row, buildKeys), row);
+            memory += estimateSize(row);
+            if (memory > maxMemory) {
+                try {
+                    return spill(table, lines);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        Stream<CsvLine> probeLines = parallel ? probe.stream().parallel() : probe.stream();
+        return probeLines.flatMap(line -> join(table, line.toArray()));
+    }
+
+    private synchronized void prepare() {
+        if (header != null) {
+            return;
+        }
+        String[] buildHeader = build.getHeader();
+        String[] probeHeader = probe.getHeader();
+        if (buildHeader == null || probeHeader == null) {
+            throw new NoHeaderDefinitionFoundException();
+        }
+        buildKeys = indices(buildHeader, buildColumns);
+        probeKeys = indices(probeHeader, probeColumns);
+        probeWidth = probeHeader.length;
+
+        List<String> names = new ArrayList<>(Arrays.asList(probeHeader));
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < buildHeader.length; i++) {
+            int index = i;
+            if (Arrays.stream(buildKeys).noneMatch(key -> key == index)) {
+                values.add(i);
+                names.add(names.contains(buildHeader[i]) ? buildHeader[i] + "_right" : buildHeader[i]);
+            }
+        }
+        buildValues = values.stream().mapToInt(Integer::intValue).toArray();
+        header = new CsvHeader(names.toArray(new String[0]));
+    }
+
+    private static int[] indices(String[] header, String[] columns) {
+        CsvHeader csvHeader = new CsvHeader(header);
+        int[] indices = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indices[i] = csvHeader.getIndex(columns[i]);
+            if (indices[i] == -1) {
+                throw new ColumnNotExistException(columns[i]);
+            }
+        }
+        return indices;
+    }
+
+    private Stream<CsvLine> join(Table table, String[] probeRow) {
+        long hash = CsvHash.hash(probeRow, probeKeys);
+        List<CsvLine> joined = null;
+        for (int i = table.first(hash); i != -1; i = table.next(i, hash)) {
+            String[] buildRow = table.rows[i];
+            if (keysEqual(probeRow, buildRow)) {
+                if (joined == null) {
+                    joined = new ArrayList<>(1);
+                }
+                joined.add(combine(probeRow, buildRow));
+            }
+        }
+        if (joined != null) {
+            return joined.stream();
+        }
+        return keepUnmatched ? Stream.of(combine(probeRow, null)) : Stream.empty();
+    }
+
+    private boolean keysEqual(String[] probeRow, String[] buildRow) {
+        for (int k = 0; k < probeKeys.length; k++) {
+            if (!value(probeRow, probeKeys[k]).equals(value(buildRow, buildKeys[k]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CsvLine combine(String[] probeRow, String[] buildRow) {
+        CsvLine line = new CsvLine(',', '"', '\n', null, header);
+        for (int i = 0; i < probeWidth; i++) {
+            line.add(value(probeRow, i));
+        }
+        for (int index : buildValues) {
+            line.add(buildRow == null ? "" : value(buildRow, index));
+        }
+        return line;
+    }
+
+    private static String value(String[] row, int index) {
+        return index < row.length ? row[index] : "";
+    }
+
+    private static long estimateSize(String[] row) {
+        long size = 16 + 8L * row.length;
+        for (String value : row) {
+            size += 40 + 2L * value.length();
+        }
+        return size;
+    }
+
+    private int partition(long hash, int depth) {
+        // the table buckets use the low bits of the hash, every level draws its partition from a fresh mix
+        return (int) ((CsvHash.mix(hash + depth) >>> 1) % partitions);
+    }
+
+    private Stream<CsvLine> spill(Table table, Iterator<CsvLine> remaining) throws IOException {
+        Path directory = tempDirectory == null
+                ? Files.createTempDirectory("csvjoin")
+                : Files.createTempDirectory(Paths.get(tempDirectory), "csvjoin");
+        try {
+            writePartitions(directory, 0, table, remaining, probe.iterator());
+        } catch (IOException | RuntimeException e) {
+            delete(directory);
+            throw e;
+        }
+        return joinPartitions(directory, 0).onClose(() -> delete(directory));
+    }
+
+    private void writePartitions(Path directory, int depth, Table table, Iterator<CsvLine> buildLines,
+                                 Iterator<CsvLine> probeLines) throws IOException {
+        CsvWriter[] buildParts = openPartitions(directory, "build");
+        try {
+            for (int i = 0; i < table.size; i++) {
+                buildParts[partition(table.hashes[i], depth)].write(table.rows[i]);
+            }
+            while (buildLines.hasNext()) {
+                String[] row = buildLines.next().toArray();
+                buildParts[partition(CsvHash.hash(row, buildKeys), depth)].write(row);
+            }
+        } finally {
+            closePartitions(buildParts);
+        }
+        CsvWriter[] probeParts = openPartitions(directory, "probe");
+        try {
+            while (probeLines.hasNext()) {
+                String[] row = probeLines.next().toArray();
+                probeParts[partition(CsvHash.hash(row, probeKeys), depth)].write(row);
+            }
+        } finally {
+            closePartitions(probeParts);
+        }
+    }
+
+    private Stream<CsvLine> joinPartitions(Path directory, int depth) {
+        return IntStream.range(0, partitions).boxed()
+                .flatMap(partition -> joinPartition(directory, partition, depth));
+    }
+
+    /**
+     * Joins one partition, re-partitioning it a level deeper when its build side exceeds the memory limit. Past
+     * {@link #MAX_DEPTH} levels the partition is loaded whole, which only happens when a few join keys hold most
+     * of the build side.
+     */
+    private Stream<CsvLine> joinPartition(Path directory, int partition, int depth) {
+        Table table = new Table();
+        long memory = 0;
+        Path buildFile = partitionFile(directory, "build", partition);
+        Path probeFile = partitionFile(directory, "probe", partition);
+        try (CsvReader reader = readPartition(buildFile)) {
+            Iterator<CsvLine> lines = reader.iterator();
+            while (lines.hasNext()) {
+                String[] row = lines.next().toArray();
+                table.add(CsvHash.hash(row, buildKeys), row);
+                memory += estimateSize(row);
+                if (memory > maxMemory && depth < MAX_DEPTH) {
+                    Path split = directory.resolve("split-" + partition);
+                    Files.createDirectory(split);
+                    try (CsvReader probeReader = readPartition(probeFile)) {
+                        writePartitions(split, depth + 1, table, lines, probeReader.iterator());
+                    }
+                    return joinPartitions(split, depth + 1);
+                }
+            }
+            CsvReader probeReader = readPartition(probeFile);
+            return probeReader.stream()
+                    .onClose(() -> {
+                        try {
+                            probeReader.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .flatMap(line -> join(table, line.toArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CsvWriter[] openPartitions(Path directory, String side) throws IOException {
+        CsvWriter[] writers = new CsvWriter[partitions];
+        try {
+            for (int i = 0; i < partitions; i++) {
+                writers[i] = new CsvWriter(new OutputStreamWriter(
+                        Files.newOutputStream(partitionFile(directory, side, i)), StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            closePartitions(writers);
+            throw e;
+        }
+        return writers;
+    }
+
+    private static CsvReader readPartition(Path file) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    private static void closePartitions(CsvWriter[] writers) {
+        for (CsvWriter writer : writers) {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private static Path partitionFile(Path directory, String side, int partition) {
+        return directory.resolve(side + "-" + partition + ".csv");
+    }
+
+    private static void delete(Path directory) {
+        try {
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+                paths.forEach(files::add);
+            }
+            for (Path file : files) {
+                if (Files.isDirectory(file)) {
+                    delete(file);
+                } else {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Chained hash table of build rows stored in parallel arrays, only read once built
+     */
+    private static final class Table {
+        private String[][] rows = new String[1024][];
+        private long[] hashes = new long[1024];
+        private int[] next = new int[1024];
+        private int[] buckets = newBuckets(1024);
+        private int size = 0;
+
+        void add(long hash, String[] row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+                next = Arrays.copyOf(next, size * 2);
+            }
+            if (size >= buckets.length) {
+                buckets = newBuckets(buckets.length * 2);
+                for (int i = 0; i < size; i++) {
+                    link(i);
+                }
+            }
+            rows[size] = row;
+            hashes[size] = hash;
+            link(size++);
+        }
+
+        private void link(int i) {
+            int bucket = (int) hashes[i] & (buckets.length - 1);
+            next[i] = buckets[bucket];
+            buckets[bucket] = i;
+        }
+
+        int first(long hash) {
+            int i = buckets[(int) hash & (buckets.length - 1)];
+            return i == -1 || hashes[i] == hash ? i : next(i, hash);
+        }
+
+        int next(int i, long hash) {
+            for (i = next[i]; i != -1; i = next[i]) {
+                if (hashes[i] == hash) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int[] newBuckets(int size) {
+            int[] buckets = new int[size];
+            Arrays.fill(buckets, -1);
+            return buckets;
+        }
+    }
+}
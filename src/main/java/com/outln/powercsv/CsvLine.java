@@ -10,7 +10,7 @@ import java.util.stream.Collectors;
 
 public class CsvLine implements Collection<String> {
     ArrayList<String> values;
-    private final StringBuilder builder = new StringBuilder(4 * 1024);
+    private StringBuilder builder = null;
     private final char separator;
     private final char quote;
     private final char newLine;
@@ -97,7 +97,14 @@ public class CsvLine implements Collection<String> {
         this.header = header;
     }
 
+    CsvHeader getCsvHeader() {
+        return header;
+    }
+
     public boolean parseValue(char c) {
+        if (builder == null) {
+            builder = new StringBuilder(256);
+        }
         if (inQuote) {
             if (c == quote) {
                 inQuote = false;
@@ -123,6 +130,10 @@ public class CsvLine implements Collection<String> {
     }
 
     void completeLine() {
+        if (builder == null) {
+            values.add("");
+            return;
+        }
         values.add(builder.toString());
         builder.setLength(0);
     }
@@ -140,6 +151,26 @@ public class CsvLine implements Collection<String> {
         return this;
     }
 
+    public CsvLine appendInt(int value) {
+        values.add(Integer.toString(value));
+        return this;
+    }
+
+    public CsvLine appendLong(long value) {
+        values.add(Long.toString(value));
+        return this;
+    }
+
+    public CsvLine appendDouble(double value) {
+        values.add(Double.toString(value));
+        return this;
+    }
+
+    public CsvLine appendBigDecimal(BigDecimal value) {
+        values.add(value == null ? "" : value.toString());
+        return this;
+    }
+
     public CsvLine set(String key, Object value) {
         int index = getColumnIndex(key);
         if (index == -1) {
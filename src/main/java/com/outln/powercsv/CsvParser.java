@@ -0,0 +1,171 @@
+package com.outln.powercsv;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses csv payloads already held in memory without a {@link java.io.Reader}. Input is copied into a thread local
+ * scratch buffer and values without quotes are cut from it directly, so small payloads allocate little more than
+ * the parsed values. A parser can be shared by several threads once configured.
+ */
+public class CsvParser {
+    private static final int MAX_RETAINED_SCRATCH = 64 * 1024;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private CsvHeader header = null;
+    private boolean readHeaders = false;
+
+    private char separator = ',';
+    private char quote = '"';
+    private char newLine = '\n';
+
+    public CsvParser setSeparator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    public CsvParser setQuote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    public CsvParser setLineBreak(char lineBreak) {
+        this.newLine = lineBreak;
+        return this;
+    }
+
+    /**
+     * Uses the first line of every payload as the header of its lines
+     */
+    public CsvParser readHeaders() {
+        this.readHeaders = true;
+        return this;
+    }
+
+    public CsvParser setHeaders(String[] header) {
+        this.header = new CsvHeader(header);
+        return this;
+    }
+
+    public List<CsvLine> parse(String csv) {
+        Scratch scratch = SCRATCH.get();
+        char[] chars = scratch.chars(csv.length());
+        csv.getChars(0, csv.length(), chars, 0);
+        return parse(chars, 0, csv.length(), scratch);
+    }
+
+    public List<CsvLine> parse(char[] csv) {
+        return parse(csv, 0, csv.length);
+    }
+
+    public List<CsvLine> parse(char[] csv, int offset, int length) {
+        return parse(csv, offset, offset + length, SCRATCH.get());
+    }
+
+    public List<CsvLine> parse(byte[] csv, Charset charset) {
+        Scratch scratch = SCRATCH.get();
+        CharsetDecoder decoder = scratch.decoder(charset);
+        CharBuffer chars = CharBuffer.wrap(scratch.chars((int) Math.ceil(csv.length * decoder.maxCharsPerByte())));
+        decoder.decode(ByteBuffer.wrap(csv), chars, true);
+        decoder.flush(chars);
+        return parse(chars.array(), 0, chars.position(), scratch);
+    }
+
+    private List<CsvLine> parse(char[] chars, int start, int end, Scratch scratch) {
+        List<CsvLine> lines = new ArrayList<>();
+        CsvHeader lineHeader = readHeaders ? null : header;
+        StringBuilder builder = scratch.builder;
+        boolean headerPending = readHeaders;
+        CsvLine line = null;
+        boolean inQuote = false;
+        boolean buffered = false;
+        int valueStart = start;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (line == null) {
+                line = new CsvLine(separator, quote, newLine, null, lineHeader);
+            }
+            if (inQuote) {
+                if (c == quote) {
+                    inQuote = false;
+                } else {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (c == separator || c == newLine) {
+                line.add(buffered ? builder.toString() : new String(chars, valueStart, i - valueStart));
+                builder.setLength(0);
+                buffered = false;
+                valueStart = i + 1;
+                if (c == newLine) {
+                    if (headerPending) {
+                        lineHeader = new CsvHeader(line.toArray());
+                        headerPending = false;
+                    } else {
+                        lines.add(line);
+                    }
+                    line = null;
+                }
+            } else if (c == quote || c == '\r') {
+                if (!buffered) {
+                    builder.append(chars, valueStart, i - valueStart);
+                    buffered = true;
+                }
+                if (c == quote) {
+                    inQuote = true;
+                    if (builder.length() != 0) {
+                        builder.append(quote);
+                    }
+                }
+            } else if (buffered) {
+                builder.append(c);
+            }
+        }
+        if (line != null) {
+            line.add(buffered ? builder.toString() : new String(chars, valueStart, end - valueStart));
+            if (!headerPending) {
+                lines.add(line);
+            }
+        }
+        builder.setLength(0);
+        if (builder.capacity() > MAX_RETAINED_SCRATCH) {
+            scratch.builder = new StringBuilder(256);
+        }
+        return lines;
+    }
+
+    /**
+     * Per thread buffers reused across payloads, buffers grown past {@link #MAX_RETAINED_SCRATCH} are not kept
+     */
+    private static final class Scratch {
+        private char[] chars = new char[4 * 1024];
+        private StringBuilder builder = new StringBuilder(256);
+        private CharsetDecoder decoder = null;
+
+        char[] chars(int length) {
+            if (length <= chars.length) {
+                return chars;
+            }
+            if (length > MAX_RETAINED_SCRATCH) {
+                return new char[length];
+            }
+            chars = new char[length];
+            return chars;
+        }
+
+        CharsetDecoder decoder(Charset charset) {
+            if (decoder == null || !decoder.charset().equals(charset)) {
+                decoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            return decoder.reset();
+        }
+    }
+}
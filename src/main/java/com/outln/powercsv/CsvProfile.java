@@ -0,0 +1,115 @@
+package com.outln.powercsv;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Row count and per column statistics collected in a single pass. Parallel streams collect partial profiles per
+ * thread which are merged at the end.
+ */
+public class CsvProfile {
+    private final CsvHeader header;
+    private final List<CsvColumnProfile> columns = new ArrayList<>();
+    private long rowCount = 0;
+
+    CsvProfile(CsvHeader header) {
+        this.header = header;
+        if (header != null) {
+            for (String name : header.getHeaders()) {
+                columns.add(new CsvColumnProfile(name));
+            }
+        }
+    }
+
+    /**
+     * Profiles the lines of a dataset, use {@link CsvDataset#setSplitFiles(boolean)} to profile a single large file
+     * with several threads
+     *
+     * @param dataset the dataset
+     * @return the profile
+     */
+    public static CsvProfile profile(CsvDataset dataset) {
+        String[] header = dataset.getHeader();
+        try (Stream<CsvLine> lines = dataset.stream().unordered()) {
+            return profile(lines, header);
+        }
+    }
+
+    public static CsvProfile profile(String... files) {
+        return profile(CsvDataset.of(files));
+    }
+
+    /**
+     * Profiles a stream of lines
+     *
+     * @param lines  the lines, may be parallel
+     * @param header the header, {@code null} to name columns by index
+     * @return the profile
+     */
+    public static CsvProfile profile(Stream<CsvLine> lines, String[] header) {
+        CsvHeader csvHeader = header == null ? null : new CsvHeader(header);
+        return lines.collect(() -> new CsvProfile(csvHeader), CsvProfile::accept, CsvProfile::merge);
+    }
+
+    void accept(CsvLine line) {
+        rowCount++;
+        int size = line.size();
+        for (int i = columns.size(); i < size; i++) {
+            columns.add(newColumn(i));
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            CsvColumnProfile column = columns.get(i);
+            if (i < size) {
+                column.accept(line.getString(i));
+            } else {
+                column.acceptMissing(1);
+            }
+        }
+    }
+
+    void merge(CsvProfile other) {
+        rowCount += other.rowCount;
+        for (int i = 0; i < other.columns.size(); i++) {
+            if (i == columns.size()) {
+                CsvColumnProfile column = newColumn(i);
+                // lines of this partial profile were too short for the column
+                column.acceptMissing(rowCount - other.rowCount);
+                columns.add(column);
+            }
+            columns.get(i).merge(other.columns.get(i));
+        }
+        for (int i = other.columns.size(); i < columns.size(); i++) {
+            columns.get(i).acceptMissing(other.rowCount);
+        }
+    }
+
+    private CsvColumnProfile newColumn(int index) {
+        String name = header == null ? null : header.getHeader(index);
+        return new CsvColumnProfile(name == null ? String.valueOf(index) : name);
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public List<CsvColumnProfile> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public CsvColumnProfile getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public CsvColumnProfile getColumn(String column) {
+        if (header == null) {
+            throw new NoHeaderDefinitionFoundException();
+        }
+        int index = header.getIndex(column);
+        if (index == -1) {
+            throw new ColumnNotExistException(column);
+        }
+        return columns.get(index);
+    }
+}
@@ -0,0 +1,220 @@
+package com.outln.powercsv;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+/**
+ * Non blocking csv parser fed with chunks of bytes as they arrive. Completed lines are passed to the consumer
+ * as long as there is outstanding demand. When the demand is exhausted {@link #feed(ByteBuffer)} stops consuming
+ * the chunk and returns {@code false}, the caller keeps the remaining bytes and feeds them again after
+ * {@link #request(long)}. Quote, partial value and partial character state is carried across chunks.
+ * <p>
+ * A parser is not thread safe, it is meant to be driven by a single event loop thread.
+ */
+public class CsvPushParser {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Consumer<CsvLine> consumer;
+    private long demand;
+
+    private CsvHeader header = null;
+    private boolean readHeaders = false;
+
+    private char separator = ',';
+    private char quote = '"';
+    private char newLine = '\n';
+
+    private CharsetDecoder decoder = newDecoder(Charset.defaultCharset());
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private CsvLine line = null;
+    private boolean ended = false;
+    private boolean decoded = false;
+    private boolean delivering = false;
+
+    /**
+     * Creates a parser with unbounded demand
+     *
+     * @param consumer the consumer of the parsed lines
+     */
+    public CsvPushParser(Consumer<CsvLine> consumer) {
+        this(consumer, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a parser delivering at most the given number of lines until more are requested
+     *
+     * @param consumer      the consumer of the parsed lines
+     * @param initialDemand the number of lines to deliver before {@link #request(long)} is called
+     */
+    public CsvPushParser(Consumer<CsvLine> consumer, long initialDemand) {
+        this.consumer = consumer;
+        this.demand = initialDemand;
+    }
+
+    public CsvPushParser setSeparator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    public CsvPushParser setQuote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    public CsvPushParser setLineBreak(char lineBreak) {
+        this.newLine = lineBreak;
+        return this;
+    }
+
+    public CsvPushParser setCharset(Charset charset) {
+        this.decoder = newDecoder(charset);
+        return this;
+    }
+
+    /**
+     * Uses the first line of the input as the header instead of passing it to the consumer
+     */
+    public CsvPushParser readHeaders() {
+        this.readHeaders = true;
+        return this;
+    }
+
+    public CsvPushParser setHeaders(String[] header) {
+        this.header = new CsvHeader(header);
+        return this;
+    }
+
+    public String[] getHeader() {
+        return header == null ? null : header.getHeaders();
+    }
+
+    /**
+     * Adds to the number of lines the consumer is willing to accept and delivers the lines already buffered. When
+     * called by the consumer itself the demand is only recorded and picked up once the consumer returns.
+     *
+     * @param n the number of additional lines
+     * @return whether all buffered input has been delivered, {@code false} when called by the consumer
+     */
+    public boolean request(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Requested line count must be positive");
+        }
+        demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+        if (delivering) {
+            return false;
+        }
+        return ended ? finish() : deliver();
+    }
+
+    /**
+     * Parses a chunk of input. The chunk position is advanced past the consumed bytes.
+     *
+     * @param chunk the chunk
+     * @return {@code true} if the whole chunk was consumed, {@code false} if parsing paused for lack of demand
+     */
+    public boolean feed(ByteBuffer chunk) {
+        if (ended) {
+            throw new IllegalStateException("Input already ended");
+        }
+        while (deliver()) {
+            if (!chunk.hasRemaining()) {
+                return true;
+            }
+            int n = Math.min(chunk.remaining(), bytes.remaining());
+            ByteBuffer slice = chunk.duplicate();
+            slice.limit(slice.position() + n);
+            bytes.put(slice);
+            chunk.position(chunk.position() + n);
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            bytes.compact();
+        }
+        return false;
+    }
+
+    /**
+     * Marks the end of input, the last line is delivered even when not terminated by a line break
+     *
+     * @return whether all lines have been delivered
+     */
+    public boolean endOfInput() {
+        ended = true;
+        return finish();
+    }
+
+    private boolean finish() {
+        while (!decoded) {
+            deliver();
+            if (!chars.hasRemaining()) {
+                return false;
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, true);
+            bytes.compact();
+            if (result.isUnderflow()) {
+                decoder.flush(chars);
+                decoded = true;
+            }
+        }
+        deliver();
+        if (chars.position() > 0) {
+            return false;
+        }
+        if (line != null) {
+            if (demand == 0) {
+                return false;
+            }
+            line.completeLine();
+            emit(line);
+            line = null;
+        }
+        return true;
+    }
+
+    private boolean deliver() {
+        chars.flip();
+        try {
+            while (demand > 0 && chars.hasRemaining()) {
+                if (line == null) {
+                    line = new CsvLine(separator, quote, newLine);
+                }
+                if (line.parseValue(chars.get())) {
+                    emit(line);
+                    line = null;
+                }
+            }
+            return demand > 0;
+        } finally {
+            chars.compact();
+        }
+    }
+
+    private void emit(CsvLine line) {
+        if (readHeaders && header == null) {
+            header = new CsvHeader(line.toArray());
+            return;
+        }
+        line.setHeader(header);
+        if (demand != Long.MAX_VALUE) {
+            demand--;
+        }
+        delivering = true;
+        try {
+            consumer.accept(line);
+        } finally {
+            delivering = false;
+        }
+    }
+
+    private static CharsetDecoder newDecoder(Charset charset) {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
@@ -36,7 +36,7 @@ public class CsvReader implements Iterable<CsvLine>, Closeable {
         return this;
     }
 
-    public CsvReader setQuote(char separator) {
+    public CsvReader setQuote(char quote) {
         this.quote = quote;
         return this;
     }
@@ -6,21 +6,30 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.math.BigDecimal;
 import java.util.Iterator;
 import java.util.function.Supplier;
 
 public class CsvWriter implements Closeable {
-    BufferedWriter writer;
+    Writer writer;
     private CsvHeader header = null;
 
     private char separator = ',';
     private char quote = '"';
     private char newLine = '\n';
 
+    private final char[] scratch = new char[NumberFormatter.MAX_LENGTH];
+    private int column = 0;
+
     public CsvWriter(Writer writer) {
         this.writer = new BufferedWriter(writer);
     }
 
+    CsvWriter(Writer writer, CsvHeader header) {
+        this.writer = writer;
+        this.header = header;
+    }
+
     public CsvWriter(String filename) throws IOException {
         this(new FileWriter(filename));
     }
@@ -30,7 +39,7 @@ public class CsvWriter implements Closeable {
         return this;
     }
 
-    public CsvWriter setQuote(char separator) {
+    public CsvWriter setQuote(char quote) {
         this.quote = quote;
         return this;
     }
@@ -64,6 +73,124 @@ public class CsvWriter implements Closeable {
         }
     }
 
+    /**
+     * Writes a value to the current line without building a {@link CsvLine}
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public CsvWriter writeString(String value) {
+        try {
+            beginValue();
+            if (value == null || !needsQuote(value)) {
+                if (value != null) {
+                    writer.write(value);
+                }
+                return this;
+            }
+            writer.write(quote);
+            int start = 0;
+            int end;
+            while ((end = value.indexOf(quote, start)) != -1) {
+                writer.write(value, start, end + 1 - start);
+                writer.write(quote);
+                start = end + 1;
+            }
+            writer.write(value, start, value.length() - start);
+            writer.write(quote);
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes an int to the current line without boxing or building a {@link String}
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public CsvWriter writeInt(int value) {
+        return writeNumber(NumberFormatter.format(value, scratch, 0));
+    }
+
+    /**
+     * Writes a long to the current line without boxing or building a {@link String}
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public CsvWriter writeLong(long value) {
+        return writeNumber(NumberFormatter.format(value, scratch, 0));
+    }
+
+    /**
+     * Writes a double to the current line without boxing or building a {@link String}
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public CsvWriter writeDouble(double value) {
+        return writeNumber(NumberFormatter.format(value, scratch, 0));
+    }
+
+    /**
+     * Writes a {@link BigDecimal} to the current line in its {@link BigDecimal#toString()} form, empty for null
+     *
+     * @param value the value
+     * @return this writer
+     */
+    public CsvWriter writeBigDecimal(BigDecimal value) {
+        return writeString(value == null ? null : value.toString());
+    }
+
+    /**
+     * Ends the line started by the first value written with the {@code write*} value methods
+     */
+    public void endLine() {
+        try {
+            while (header != null && column < header.getHeaders().length) {
+                beginValue();
+            }
+            writer.write(newLine);
+            column = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CsvWriter writeNumber(int length) {
+        for (int i = 0; i < length; i++) {
+            char c = scratch[i];
+            if (c == separator || c == quote || c == newLine) {
+                return writeString(new String(scratch, 0, length));
+            }
+        }
+        try {
+            beginValue();
+            writer.write(scratch, 0, length);
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void beginValue() throws IOException {
+        if (column++ > 0) {
+            writer.write(separator);
+        }
+    }
+
+    private boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == separator || c == quote || c == newLine) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static void write(Writer writer, Iterator<CsvLine> iterator) {
         try (CsvWriter csv = new CsvWriter(writer)) {
             if (iterator.hasNext()) {
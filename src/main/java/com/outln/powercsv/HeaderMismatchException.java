@@ -0,0 +1,14 @@
+package com.outln.powercsv;
+
+public class HeaderMismatchException extends RuntimeException {
+    private final String file;
+
+    public HeaderMismatchException(String file) {
+        super("Header of '" + file + "' does not match the dataset header");
+        this.file = file;
+    }
+
+    public String getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,111 @@
+package com.outln.powercsv;
+
+/**
+ * Formats numbers into a char buffer without boxing or intermediate strings. Doubles in the plain notation range
+ * of {@link Double#toString(double)} are written with the shortest decimal that parses back to the same value.
+ */
+final class NumberFormatter {
+    /**
+     * Buffer length fitting any formatted long or double
+     */
+    static final int MAX_LENGTH = 26;
+
+    private static final double[] POWERS_OF_TEN = new double[19];
+    private static final double MAX_EXACT = 9007199254740992d;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private NumberFormatter() {
+    }
+
+    /**
+     * Formats a long
+     *
+     * @param value    the value
+     * @param buffer   the buffer
+     * @param position the position to write at
+     * @return the position after the last written char
+     */
+    static int format(long value, char[] buffer, int position) {
+        if (value < 0) {
+            buffer[position++] = '-';
+        } else {
+            value = -value;
+        }
+        // digits are produced from the negative value so that Long.MIN_VALUE needs no special case
+        int length = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            length++;
+        }
+        int end = position + length;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' - value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * Formats a double in the format of {@link Double#toString(double)}
+     *
+     * @param value    the value
+     * @param buffer   the buffer
+     * @param position the position to write at
+     * @return the position after the last written char
+     */
+    static int format(double value, char[] buffer, int position) {
+        double abs = Math.abs(value);
+        if (abs >= 1e-3 && abs < 1e7) {
+            for (int scale = 0; scale < POWERS_OF_TEN.length; scale++) {
+                double scaled = abs * POWERS_OF_TEN[scale];
+                if (scaled >= MAX_EXACT) {
+                    break;
+                }
+                double digits = Math.rint(scaled);
+                if (digits / POWERS_OF_TEN[scale] == abs) {
+                    if (value < 0) {
+                        buffer[position++] = '-';
+                    }
+                    return formatDecimal((long) digits, scale, buffer, position);
+                }
+            }
+        } else if (value == 0) {
+            if (1 / value < 0) {
+                buffer[position++] = '-';
+            }
+            return formatDecimal(0, 0, buffer, position);
+        }
+        String text = Double.toString(value);
+        text.getChars(0, text.length(), buffer, position);
+        return position + text.length();
+    }
+
+    private static int formatDecimal(long digits, int scale, char[] buffer, int position) {
+        if (scale == 0) {
+            position = format(digits, buffer, position);
+            buffer[position++] = '.';
+            buffer[position++] = '0';
+            return position;
+        }
+        int end = format(digits, buffer, position);
+        int length = end - position;
+        if (length > scale) {
+            System.arraycopy(buffer, end - scale, buffer, end - scale + 1, scale);
+            buffer[end - scale] = '.';
+            return end + 1;
+        }
+        int shift = scale - length + 2;
+        System.arraycopy(buffer, position, buffer, position + shift, length);
+        buffer[position] = '0';
+        buffer[position + 1] = '.';
+        for (int i = position + 2; i < position + shift; i++) {
+            buffer[i] = '0';
+        }
+        return end + shift;
+    }
+}
@@ -0,0 +1,112 @@
+package com.outln.powercsv;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongConsumer;
+
+/**
+ * Open addressing set of long hashes stored in a direct buffer outside the java heap. The values are expected to
+ * be well mixed hashes, their low bits are used as slot index.
+ */
+final class OffHeapLongSet {
+    // 1 GiB of slots, the largest power of two a single direct buffer can hold
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private final int maxSlots;
+    private ByteBuffer slots;
+    private int mask;
+    private int size = 0;
+    private boolean containsZero = false;
+
+    /**
+     * Creates a set
+     *
+     * @param maxBytes the size the slots may grow to
+     */
+    OffHeapLongSet(long maxBytes) {
+        int max = 16;
+        while (max < MAX_SLOTS && (long) max * 2 * 8 <= maxBytes) {
+            max *= 2;
+        }
+        this.maxSlots = max;
+        allocate(Math.min(max, 1 << 16));
+    }
+
+    int size() {
+        return size + (containsZero ? 1 : 0);
+    }
+
+    /**
+     * Checks whether adding a value may require more than the maximum size
+     */
+    boolean isFull() {
+        return size + 1 > slotCount() / 2 && slotCount() == maxSlots;
+    }
+
+    boolean add(long value) {
+        if (value == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            return added;
+        }
+        if (size + 1 > slotCount() / 2) {
+            if (slotCount() == maxSlots) {
+                throw new IllegalStateException("Set is full");
+            }
+            grow();
+        }
+        if (insert(slots, mask, value)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calls the consumer for every value in the set
+     */
+    void forEach(LongConsumer consumer) {
+        if (containsZero) {
+            consumer.accept(0);
+        }
+        for (int i = 0; i < slotCount(); i++) {
+            long value = slots.getLong(i << 3);
+            if (value != 0) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private int slotCount() {
+        return mask + 1;
+    }
+
+    private void allocate(int count) {
+        slots = ByteBuffer.allocateDirect(count * 8);
+        mask = count - 1;
+    }
+
+    private void grow() {
+        ByteBuffer old = slots;
+        int oldCount = slotCount();
+        allocate(oldCount * 2);
+        for (int i = 0; i < oldCount; i++) {
+            long value = old.getLong(i << 3);
+            if (value != 0) {
+                insert(slots, mask, value);
+            }
+        }
+    }
+
+    private static boolean insert(ByteBuffer slots, int mask, long value) {
+        for (int i = (int) value & mask; ; i = (i + 1) & mask) {
+            long slot = slots.getLong(i << 3);
+            if (slot == 0) {
+                slots.putLong(i << 3, value);
+                return true;
+            }
+            if (slot == value) {
+                return false;
+            }
+        }
+    }
+}
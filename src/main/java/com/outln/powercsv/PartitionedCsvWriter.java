@@ -0,0 +1,349 @@
+package com.outln.powercsv;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Routes lines to one csv file per partition key. Only a bounded number of partition files are kept open at a
+ * time, least recently used ones are closed and reopened in append mode when a line for them arrives again.
+ */
+public class PartitionedCsvWriter implements Closeable {
+    private static final String UNSAFE_FILE_NAME_CHARS = "%_/\\:*?\"<>|";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final Function<String, String> fileNames;
+    private final Function<CsvLine, String> keyExtractor;
+    private CsvHeader header = null;
+
+    private char separator = ',';
+    private char quote = '"';
+    private char newLine = '\n';
+
+    private int maxOpenFiles = 256;
+    private int bufferSize = 8 * 1024;
+
+    private final Set<String> partitions = new HashSet<>();
+    private final ArrayDeque<char[]> buffers = new ArrayDeque<>();
+    private final LinkedHashMap<String, CsvWriter> writers = new LinkedHashMap<String, CsvWriter>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CsvWriter> eldest) {
+            if (size() > maxOpenFiles) {
+                eldest.getValue().close();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private CharsetEncoder encoder = newEncoder(Charset.defaultCharset());
+    private ByteBuffer encoded = null;
+
+    /**
+     * Creates a writer partitioning by the values of the given columns
+     *
+     * @param fileNames  maps a partition key to the file name of the partition, the key holds the column values
+     *                   joined by {@code _}. Values are percent encoded to be safe as file names: {@code %},
+     *                   {@code _}, {@code /}, {@code \}, {@code :}, the other characters reserved on Windows,
+     *                   control characters and the UTF-8 bytes of non ASCII characters become {@code %XX}, and
+     *                   values {@code .} and {@code ..} become {@code %2E} and {@code %2E%2E}
+     * @param keyColumns the columns forming the partition key, resolved through the header of this writer
+     */
+    public PartitionedCsvWriter(Function<String, String> fileNames, String... keyColumns) {
+        this.fileNames = fileNames;
+        this.keyExtractor = line -> {
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < keyColumns.length; i++) {
+                if (i > 0) {
+                    key.append('_');
+                }
+                appendEscaped(key, line.getString(getKeyIndex(keyColumns[i]), ""));
+            }
+            return key.toString();
+        };
+    }
+
+    /**
+     * Creates a writer partitioning by a custom key
+     *
+     * @param fileNames    maps a partition key to the file name of the partition
+     * @param keyExtractor extracts the partition key of a line
+     */
+    public PartitionedCsvWriter(Function<String, String> fileNames, Function<CsvLine, String> keyExtractor) {
+        this.fileNames = fileNames;
+        this.keyExtractor = keyExtractor;
+    }
+
+    public PartitionedCsvWriter setSeparator(char separator) {
+        this.separator = separator;
+        return this;
+    }
+
+    public PartitionedCsvWriter setQuote(char quote) {
+        this.quote = quote;
+        return this;
+    }
+
+    public PartitionedCsvWriter setLineBreak(char lineBreak) {
+        this.newLine = lineBreak;
+        return this;
+    }
+
+    public PartitionedCsvWriter setCharset(Charset charset) {
+        this.encoder = newEncoder(charset);
+        this.encoded = null;
+        return this;
+    }
+
+    public PartitionedCsvWriter setMaxOpenFiles(int maxOpenFiles) {
+        if (maxOpenFiles < 1) {
+            throw new IllegalArgumentException("At least one open file is required");
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        return this;
+    }
+
+    public PartitionedCsvWriter setBufferSize(int bufferSize) {
+        if (bufferSize < 16) {
+            throw new IllegalArgumentException("Buffer size too small");
+        }
+        this.bufferSize = bufferSize;
+        this.encoded = null;
+        buffers.clear();
+        return this;
+    }
+
+    /**
+     * Sets the header written at the top of every partition file
+     *
+     * @param header the header
+     */
+    public PartitionedCsvWriter setHeader(String[] header) {
+        this.header = new CsvHeader(header);
+        return this;
+    }
+
+    public Set<String> getPartitions() {
+        return Collections.unmodifiableSet(partitions);
+    }
+
+    public void write(String[] line) {
+        write(new CsvLine(separator, quote, newLine, null, header).setLine(line));
+    }
+
+    public void write(CsvLine line) {
+        String key = keyExtractor.apply(line);
+        CsvWriter writer = writers.get(key);
+        if (writer == null) {
+            writer = open(key);
+            writers.put(key, writer);
+        }
+        writer.write(line);
+    }
+
+    private int getKeyIndex(String column) {
+        if (header == null) {
+            throw new NoHeaderDefinitionFoundException();
+        }
+        int index = header.getIndex(column);
+        if (index == -1) {
+            throw new ColumnNotExistException(column);
+        }
+        return index;
+    }
+
+    private static void appendEscaped(StringBuilder key, String value) {
+        boolean dots = value.equals(".") || value.equals("..");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                int end = i + 1;
+                while (end < value.length() && value.charAt(end) >= 0x80) {
+                    end++;
+                }
+                for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+                    appendHex(key, b & 0xff);
+                }
+                i = end - 1;
+            } else if (dots || c < 0x20 || c == 0x7f || UNSAFE_FILE_NAME_CHARS.indexOf(c) != -1) {
+                appendHex(key, c);
+            } else {
+                key.append(c);
+            }
+        }
+    }
+
+    private static void appendHex(StringBuilder key, int b) {
+        key.append('%').append(HEX[b >> 4]).append(HEX[b & 0xf]);
+    }
+
+    private CsvWriter open(String key) {
+        boolean append = !partitions.add(key);
+        FileChannel channel;
+        try {
+            channel = append
+                    ? FileChannel.open(Paths.get(fileNames.apply(key)), StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+                    : FileChannel.open(Paths.get(fileNames.apply(key)), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CsvWriter writer = new CsvWriter(new PartitionWriter(channel), header)
+                .setSeparator(separator)
+                .setQuote(quote)
+                .setLineBreak(newLine);
+        if (header != null && !append) {
+            writer.write(header.getHeaders());
+        }
+        return writer;
+    }
+
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public void close() {
+        RuntimeException failure = null;
+        Iterator<CsvWriter> iterator = writers.values().iterator();
+        while (iterator.hasNext()) {
+            CsvWriter writer = iterator.next();
+            iterator.remove();
+            try {
+                writer.close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Buffers the characters of one partition in a pooled buffer and encodes them to the partition file through
+     * the encoder shared by all partitions.
+     */
+    private class PartitionWriter extends Writer {
+        private final FileChannel channel;
+        private char[] buffer = null;
+        private int position = 0;
+
+        PartitionWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, reserve());
+                System.arraycopy(chars, off, buffer, position, n);
+                position += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, reserve());
+                str.getChars(off, off + n, buffer, position);
+                position += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            reserve();
+            buffer[position++] = (char) c;
+        }
+
+        private int reserve() throws IOException {
+            if (buffer == null) {
+                buffer = buffers.isEmpty() ? new char[bufferSize] : buffers.pop();
+            }
+            if (position == buffer.length) {
+                drain(false);
+            }
+            return buffer.length - position;
+        }
+
+        private void drain(boolean endOfInput) throws IOException {
+            if (encoded == null) {
+                encoded = ByteBuffer.allocate((int) (bufferSize * encoder.maxBytesPerChar()));
+            }
+            CharBuffer chars = CharBuffer.wrap(buffer, 0, position);
+            encoder.reset();
+            while (encoder.encode(chars, encoded, endOfInput).isOverflow()) {
+                writeEncoded();
+            }
+            if (endOfInput) {
+                while (encoder.flush(encoded).isOverflow()) {
+                    writeEncoded();
+                }
+            }
+            writeEncoded();
+            // a trailing high surrogate stays buffered until its pair arrives
+            int remaining = chars.remaining();
+            System.arraycopy(buffer, chars.position(), buffer, 0, remaining);
+            position = remaining;
+        }
+
+        private void writeEncoded() throws IOException {
+            encoded.flip();
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            encoded.clear();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer != null && position > 0) {
+                drain(false);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (buffer != null) {
+                    drain(true);
+                    if (buffer.length == bufferSize) {
+                        buffers.push(buffer);
+                    }
+                    buffer = null;
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.outln.powercsv;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CsvPushParserTest {
+
+    @Test
+    public void requestFromConsumerDeliversEveryLineOnce() {
+        for (String input : new String[]{"a,b\n1,2\n3,4\n", "a,b\n1,2\n3,4"}) {
+            for (int chunkSize : new int[]{1, input.length()}) {
+                List<List<String>> lines = new ArrayList<>();
+                AtomicReference<CsvPushParser> parser = new AtomicReference<>();
+                parser.set(new CsvPushParser(line -> {
+                    lines.add(line.getValues());
+                    parser.get().request(1);
+                }, 1).setCharset(StandardCharsets.UTF_8).readHeaders());
+
+                byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+                for (int i = 0; i < bytes.length; i += chunkSize) {
+                    assertTrue(parser.get().feed(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i))));
+                }
+                assertTrue(parser.get().endOfInput());
+
+                assertArrayEquals(new String[]{"a", "b"}, parser.get().getHeader());
+                assertEquals(Arrays.asList(Arrays.asList("1", "2"), Arrays.asList("3", "4")), lines);
+            }
+        }
+    }
+}